@@ -47,6 +47,14 @@ theme attribute (in the form
 containing a value of this type.
          */
         public static final int removeFromParentOnEnd=0x7f010004;
+        /** <p>Must be a boolean value, either "<code>true</code>" or "<code>false</code>".
+<p>This may also be a reference to a resource (in the form
+"<code>@[<i>package</i>:]<i>type</i>:<i>name</i></code>") or
+theme attribute (in the form
+"<code>?[<i>package</i>:][<i>type</i>:]<i>name</i></code>")
+containing a value of this type.
+         */
+        public static final int useIconCache=0x7f010005;
     }
     public static final class color {
         public static final int twitter_blue=0x7f040001;
@@ -96,16 +104,18 @@ containing a value of this type.
            <tr><td><code>{@link #TwitterSplashView_icon com.yildizkabaran.twittersplash:icon}</code></td><td></td></tr>
            <tr><td><code>{@link #TwitterSplashView_iconColor com.yildizkabaran.twittersplash:iconColor}</code></td><td></td></tr>
            <tr><td><code>{@link #TwitterSplashView_removeFromParentOnEnd com.yildizkabaran.twittersplash:removeFromParentOnEnd}</code></td><td></td></tr>
+           <tr><td><code>{@link #TwitterSplashView_useIconCache com.yildizkabaran.twittersplash:useIconCache}</code></td><td></td></tr>
            </table>
            @see #TwitterSplashView_duration
            @see #TwitterSplashView_holeFillColor
            @see #TwitterSplashView_icon
            @see #TwitterSplashView_iconColor
            @see #TwitterSplashView_removeFromParentOnEnd
+           @see #TwitterSplashView_useIconCache
          */
         public static final int[] TwitterSplashView = {
             0x7f010000, 0x7f010001, 0x7f010002, 0x7f010003,
-            0x7f010004
+            0x7f010004, 0x7f010005
         };
         /**
           <p>This symbol is the offset where the {@link com.yildizkabaran.twittersplash.R.attr#duration}
@@ -175,5 +185,19 @@ containing a value of this type.
           @attr name com.yildizkabaran.twittersplash:removeFromParentOnEnd
         */
         public static final int TwitterSplashView_removeFromParentOnEnd = 4;
+        /**
+          <p>This symbol is the offset where the {@link com.yildizkabaran.twittersplash.R.attr#useIconCache}
+          attribute's value can be found in the {@link #TwitterSplashView} array.
+
+
+          <p>Must be a boolean value, either "<code>true</code>" or "<code>false</code>".
+<p>This may also be a reference to a resource (in the form
+"<code>@[<i>package</i>:]<i>type</i>:<i>name</i></code>") or
+theme attribute (in the form
+"<code>?[<i>package</i>:][<i>type</i>:]<i>name</i></code>")
+containing a value of this type.
+          @attr name com.yildizkabaran.twittersplash:useIconCache
+        */
+        public static final int TwitterSplashView_useIconCache = 5;
     };
 }
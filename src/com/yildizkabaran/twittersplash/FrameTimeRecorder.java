@@ -0,0 +1,110 @@
+package com.yildizkabaran.twittersplash;
+
+import java.util.Locale;
+
+/**
+ * A simple class for recording the time between drawn frames. The timestamps are kept in a pre-allocated array so that
+ * recording a frame never allocates. Frames after the capacity is reached are counted but their times are not kept. All methods
+ * are synchronized since the frames may be recorded on a render thread while the results are read on the UI thread.
+ * @author yildizkabaran
+ *
+ */
+public class FrameTimeRecorder {
+
+  public static final int DEFAULT_CAPACITY = 256;
+
+  private static final long NANOS_PER_MILLI = 1000000L;
+  private static final long FRAME_BUDGET_NANOS = 16666667L; // a single frame at 60fps
+
+  private final long[] mFrameTimes;
+  private int mFrameCount = 0;
+
+  /**
+   * Default constructor, keeps the times of the first DEFAULT_CAPACITY frames
+   */
+  public FrameTimeRecorder(){
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Capacity constructor
+   * @param capacity the maximum number of frame times to keep
+   */
+  public FrameTimeRecorder(int capacity){
+    if(capacity < 2){
+      throw new IllegalArgumentException("capacity cannot be less than 2");
+    }
+
+    mFrameTimes = new long[capacity];
+  }
+
+  /**
+   * Record that a frame is being drawn right now
+   */
+  public synchronized void onFrame(){
+    if(mFrameCount < mFrameTimes.length){
+      mFrameTimes[mFrameCount] = System.nanoTime();
+    }
+    ++mFrameCount;
+  }
+
+  /**
+   * Forget all recorded frames so that the recorder can be used again
+   */
+  public synchronized void reset(){
+    mFrameCount = 0;
+  }
+
+  /**
+   * Get the total number of recorded frames
+   */
+  public synchronized int getFrameCount(){
+    return mFrameCount;
+  }
+
+  /**
+   * Get the average time between frames in milliseconds, or 0 if there are not enough frames
+   */
+  public synchronized float getAverageFrameTimeMillis(){
+    int count = Math.min(mFrameCount, mFrameTimes.length);
+    if(count < 2){
+      return 0;
+    }
+
+    return (float) (mFrameTimes[count - 1] - mFrameTimes[0]) / (count - 1) / NANOS_PER_MILLI;
+  }
+
+  /**
+   * Get the longest time between two frames in milliseconds, or 0 if there are not enough frames
+   */
+  public synchronized float getMaxFrameTimeMillis(){
+    int count = Math.min(mFrameCount, mFrameTimes.length);
+    long max = 0;
+    for(int i = 1; i < count; ++i){
+      max = Math.max(max, mFrameTimes[i] - mFrameTimes[i - 1]);
+    }
+    return (float) max / NANOS_PER_MILLI;
+  }
+
+  /**
+   * Get the number of frames that took longer than a single 60fps frame to arrive
+   */
+  public synchronized int getSlowFrameCount(){
+    int count = Math.min(mFrameCount, mFrameTimes.length);
+    int slowCount = 0;
+    for(int i = 1; i < count; ++i){
+      if(mFrameTimes[i] - mFrameTimes[i - 1] > FRAME_BUDGET_NANOS){
+        ++slowCount;
+      }
+    }
+    return slowCount;
+  }
+
+  /**
+   * Get a one line summary of the recorded frames, useful for logging
+   */
+  public synchronized String getSummary(){
+    return String.format(Locale.US, "%d frames, avg %.2fms, max %.2fms, %d slower than 16.7ms",
+        mFrameCount, getAverageFrameTimeMillis(), getMaxFrameTimeMillis(), getSlowFrameCount());
+  }
+}
@@ -4,70 +4,245 @@ import java.util.Random;
 
 import android.app.Activity;
 import android.content.Context;
+import android.content.Intent;
 import android.os.Bundle;
 import android.os.Handler;
+import android.os.SystemClock;
 import android.util.Log;
 import android.view.View;
 import android.view.ViewGroup;
 
 import com.yildizkabaran.twittersplash.view.ContentView;
+import com.yildizkabaran.twittersplash.view.ISplash;
 import com.yildizkabaran.twittersplash.view.MainView;
+import com.yildizkabaran.twittersplash.view.SplashSurfaceView;
 import com.yildizkabaran.twittersplash.view.SplashView;
 import com.yildizkabaran.twittersplash.view.SplashView.ISplashListener;
 
 public class MainActivity extends Activity {
 
   private static final String TAG = "MainActivity";
-  private static final boolean DO_XML = false;
+  private static final boolean DO_XML = false; // default, can be changed at launch with EXTRA_DO_XML
+  private static final boolean USE_RENDER_THREAD = false; // default, draw the splash on its own thread, only used when not inflating from XML
+  private static final boolean SIMULATE_UI_LOAD = false; // default, keep the UI thread busy during the splash to compare the two variants
+  private static final long UI_LOAD_BUSY_MS = 24; // how long the UI thread is kept busy in each step of the simulated load
+  private static final long UI_LOAD_IDLE_MS = 8; // how long the UI thread is left alone between the steps of the simulated load
   
+  // launch options, so that a harness can choose the variant and make the run repeatable without rebuilding the app
+  public static final String EXTRA_DO_XML = "com.yildizkabaran.twittersplash.DO_XML"; // boolean
+  public static final String EXTRA_USE_RENDER_THREAD = "com.yildizkabaran.twittersplash.USE_RENDER_THREAD"; // boolean
+  public static final String EXTRA_SIMULATE_UI_LOAD = "com.yildizkabaran.twittersplash.SIMULATE_UI_LOAD"; // boolean
+  public static final String EXTRA_LOADING_DELAY_MS = "com.yildizkabaran.twittersplash.LOADING_DELAY_MS"; // long, random if not given
+  public static final String EXTRA_RANDOM_SEED = "com.yildizkabaran.twittersplash.RANDOM_SEED"; // long, seeds the random loading delay
+  public static final String EXTRA_MEASURE_STARTUP = "com.yildizkabaran.twittersplash.MEASURE_STARTUP"; // boolean, off by default
+  // long startup thresholds, none are checked unless given, see StartupMetrics
+  public static final String EXTRA_MAX_TIME_TO_FIRST_SPLASH_FRAME_MS = "com.yildizkabaran.twittersplash.MAX_TIME_TO_FIRST_SPLASH_FRAME_MS";
+  public static final String EXTRA_MAX_TIME_TO_CONTENT_MS = "com.yildizkabaran.twittersplash.MAX_TIME_TO_CONTENT_MS";
+  public static final String EXTRA_MAX_PEAK_HEAP_BYTES = "com.yildizkabaran.twittersplash.MAX_PEAK_HEAP_BYTES";
+  
+  // the result of a measured startup, the activity finishes with RESULT_OK or RESULT_STARTUP_REGRESSED once the splash is removed
+  public static final int RESULT_STARTUP_REGRESSED = RESULT_FIRST_USER;
+  public static final String EXTRA_STARTUP_REPORT = "com.yildizkabaran.twittersplash.STARTUP_REPORT"; // String, see StartupMetrics.getReport()
+  public static final String EXTRA_STARTUP_FAILURES = "com.yildizkabaran.twittersplash.STARTUP_FAILURES"; // String, only if regressed
+  
+  private boolean mDoXml = DO_XML;
+  private boolean mUseRenderThread = USE_RENDER_THREAD;
+  private boolean mSimulateUiLoad = SIMULATE_UI_LOAD;
   private ViewGroup mMainView;
-  private SplashView mSplashView;
+  private ISplash mSplashView;
   private View mContentView;
   private Handler mHandler = new Handler();
+  private FrameTimeRecorder mFrameTimeRecorder;
+  private boolean mUiLoadRunning = false;
+  private StartupMetrics mStartupMetrics; // null when the startup is not measured
+  private StartupMetrics.IStartupListener mStartupListener;
+  private boolean mStartupMeasured = false;
+  private String mStartupFailures;
   
   @Override
   protected void onCreate(Bundle savedInstanceState) {
     super.onCreate(savedInstanceState);
+    
+    Intent intent = getIntent();
+    if(intent != null){
+      mDoXml = intent.getBooleanExtra(EXTRA_DO_XML, DO_XML);
+      mUseRenderThread = intent.getBooleanExtra(EXTRA_USE_RENDER_THREAD, USE_RENDER_THREAD);
+      mSimulateUiLoad = intent.getBooleanExtra(EXTRA_SIMULATE_UI_LOAD, SIMULATE_UI_LOAD);
+    }
+    
+    // start measuring the startup before any view is created
+    mStartupMetrics = createStartupMetrics();
+    if(mStartupMetrics != null){
+      mStartupMetrics.markCreate();
+    }
 
-    // change the DO_XML variable to switch between code and xml
-    if(DO_XML){
+    // change the DO_XML variable or launch with EXTRA_DO_XML to switch between code and xml
+    if(mDoXml){
       // inflate the view from XML and then get a reference to it
       setContentView(R.layout.activity_main);
       mMainView = (ViewGroup) findViewById(R.id.main_view);
-      mSplashView = (SplashView) findViewById(R.id.splash_view);
+      mSplashView = (ISplash) findViewById(R.id.splash_view);
     } else {
       // create the main view and it will handle the rest
-      mMainView = new MainView(getApplicationContext());
+      mMainView = new MainView(getApplicationContext(), mUseRenderThread);
       mSplashView = ((MainView) mMainView).getSplashView();
       setContentView(mMainView);
     }
     
+    // measure the splash frame times in debug builds so that the two splash variants can be compared
+    if(BuildConfig.DEBUG){
+      mFrameTimeRecorder = new FrameTimeRecorder();
+    }
+    
+    // let the splash report its own frames, since the render thread variant does not draw with the rest of the window
+    if(mStartupMetrics != null || mFrameTimeRecorder != null){
+      setSplashFrameListener(createSplashFrameListener(mStartupMetrics, mFrameTimeRecorder));
+    }
+    
     // pretend like we are loading data
     startLoadingData();
   }
   
+  /**
+   * Create the object that measures the startup, or return null to not measure it. The startup is only measured when launched
+   * with EXTRA_MEASURE_STARTUP, and the thresholds are taken from the launch extras. Override this to measure with a different
+   * clock, e.g. when running on a simulated runtime with a deterministic clock.
+   */
+  protected StartupMetrics createStartupMetrics(){
+    Intent intent = getIntent();
+    if(intent == null || !intent.getBooleanExtra(EXTRA_MEASURE_STARTUP, false)){
+      return null;
+    }
+    
+    StartupMetrics metrics = new StartupMetrics();
+    metrics.setMaxTimeToFirstSplashFrame(intent.getLongExtra(EXTRA_MAX_TIME_TO_FIRST_SPLASH_FRAME_MS, StartupMetrics.NO_THRESHOLD));
+    metrics.setMaxTimeToContent(intent.getLongExtra(EXTRA_MAX_TIME_TO_CONTENT_MS, StartupMetrics.NO_THRESHOLD));
+    metrics.setMaxPeakHeap(intent.getLongExtra(EXTRA_MAX_PEAK_HEAP_BYTES, StartupMetrics.NO_THRESHOLD));
+    return metrics;
+  }
+  
+  /**
+   * Get the recorder of the splash frame times, they are complete once the splash is removed. Null in release builds.
+   */
+  public FrameTimeRecorder getFrameTimeRecorder(){
+    return mFrameTimeRecorder;
+  }
+  
+  /**
+   * Create the listener that is run after every splash frame, on the thread that draws the splash
+   */
+  private static Runnable createSplashFrameListener(final StartupMetrics metrics, final FrameTimeRecorder recorder){
+    return new Runnable(){
+      // only touched by the thread that draws the splash
+      private boolean mFirstFrameDrawn = false;
+      
+      @Override
+      public void run(){
+        if(!mFirstFrameDrawn){
+          mFirstFrameDrawn = true;
+          if(metrics != null){
+            metrics.markFirstSplashFrame();
+          }
+        }
+        
+        if(recorder != null){
+          recorder.onFrame();
+        }
+      }
+    };
+  }
+  
+  /**
+   * The frame listener is a measurement hook and not part of ISplash, so set it through the concrete splash type
+   */
+  private void setSplashFrameListener(Runnable listener){
+    if(mSplashView instanceof SplashSurfaceView){
+      ((SplashSurfaceView) mSplashView).setOnFrameListener(listener);
+    } else if(mSplashView instanceof SplashView){
+      ((SplashView) mSplashView).setOnFrameListener(listener);
+    }
+  }
+  
+  /**
+   * Create the source of the random loading delay. Seeded with EXTRA_RANDOM_SEED if given, override this to control it otherwise.
+   */
+  protected Random createRandom(){
+    Intent intent = getIntent();
+    if(intent != null && intent.hasExtra(EXTRA_RANDOM_SEED)){
+      return new Random(intent.getLongExtra(EXTRA_RANDOM_SEED, 0));
+    }
+    return new Random();
+  }
+  
+  /**
+   * Get the startup measurements, they are complete once the splash is removed. Null if the startup is not measured.
+   */
+  public StartupMetrics getStartupMetrics(){
+    return mStartupMetrics;
+  }
+  
+  /**
+   * Set a listener to be notified with the measurements and the threshold check result once the splash is removed. If that has
+   * already happened the listener is notified right away. Must be called from the UI thread.
+   * @param listener can be null
+   */
+  public void setStartupListener(StartupMetrics.IStartupListener listener){
+    mStartupListener = listener;
+    if(listener != null && mStartupMeasured){
+      listener.onStartupMeasured(mStartupMetrics, mStartupFailures);
+    }
+  }
+  
   private void startLoadingData(){
-    // finish "loading data" in a random time between 1 and 3 seconds
-    Random random = new Random();
+    Intent intent = getIntent();
+    long delay = intent != null ? intent.getLongExtra(EXTRA_LOADING_DELAY_MS, -1) : -1;
+    if(delay < 0){
+      // finish "loading data" in a random time between 1 and 3 seconds
+      delay = 1000 + createRandom().nextInt(2000);
+    }
+    
     mHandler.postDelayed(new Runnable(){
       @Override
       public void run(){
         onLoadingDataEnded();
       }
-    }, 1000 + random.nextInt(2000));
+    }, delay);
   }
   
   private void onLoadingDataEnded(){
+    if(mStartupMetrics != null){
+      mStartupMetrics.markDataLoaded();
+    }
+    
+    // start the artificial load before the content is built so that it competes with everything that follows
+    if(mSimulateUiLoad){
+      startUiLoad();
+    }
+    
     Context context = getApplicationContext();
     // now that our data is loaded we can initialize the content view
     mContentView = new ContentView(context);
     // add the content view to the background
     mMainView.addView(mContentView, 0);
+    if(mStartupMetrics != null){
+      mStartupMetrics.markContentAttached();
+    }
+    
+    // only measure the frames of the animation itself
+    if(mFrameTimeRecorder != null){
+      mFrameTimeRecorder.reset();
+    }
     
     // start the splash animation
     mSplashView.splashAndDisappear(new ISplashListener(){
       @Override
       public void onStart(){
+        // the heap is at its largest while both the splash and the content are alive, sample it once here instead of on
+        // every update so that the measurement does not slow down the animation it is measuring
+        if(mStartupMetrics != null){
+          mStartupMetrics.sampleHeap();
+        }
+        
         // log the animation start event
         if(BuildConfig.DEBUG){
           Log.d(TAG, "splash started");
@@ -84,17 +259,81 @@ public class MainActivity extends Activity {
       
       @Override
       public void onEnd(){
+        // the splash view has already been removed by the time onEnd is called
+        if(mStartupMetrics != null){
+          mStartupMetrics.markSplashRemoved();
+        }
+        
         // log the animation end event
         if(BuildConfig.DEBUG){
           Log.d(TAG, "splash ended");
+          Log.d(TAG, (mUseRenderThread && !mDoXml ? "render thread" : "UI thread") + " splash frames" + (mSimulateUiLoad ? " under UI load: " : ": ")
+              + mFrameTimeRecorder.getSummary());
         }
+        mUiLoadRunning = false;
         // free the view so that it turns into garbage
         mSplashView = null;
-        if(!DO_XML){
+        if(!mDoXml){
           // if inflating from code we will also have to free the reference in MainView as well
           // otherwise we will leak the View, this could be done better but so far it will suffice
           ((MainView) mMainView).unsetSplashView();
         }
+        
+        if(mStartupMetrics != null){
+          reportStartupMetrics();
+        }
+      }
+    });
+  }
+  
+  /**
+   * Check the startup measurements against the thresholds and report them in every way a caller can read them: the log, the
+   * startup listener, and the activity result. The activity finishes afterwards, since a measured launch is a single run.
+   */
+  private void reportStartupMetrics(){
+    String failures = mStartupMetrics.checkThresholds();
+    String report = mStartupMetrics.getReport();
+    mStartupMeasured = true;
+    mStartupFailures = failures;
+    
+    // always log, even in release builds, since the startup is only measured when someone asked for it
+    Log.i(TAG, (mDoXml ? "xml" : "code") + " startup: " + report);
+    if(failures != null){
+      Log.e(TAG, "startup regressed: " + failures);
+    }
+    
+    if(mStartupListener != null){
+      mStartupListener.onStartupMeasured(mStartupMetrics, failures);
+    }
+    
+    Intent result = new Intent();
+    result.putExtra(EXTRA_STARTUP_REPORT, report);
+    if(failures != null){
+      result.putExtra(EXTRA_STARTUP_FAILURES, failures);
+    }
+    setResult(failures == null ? RESULT_OK : RESULT_STARTUP_REGRESSED, result);
+    finish();
+  }
+  
+  /**
+   * Keep the UI thread busy in short steps until the splash ends, this simulates heavy content setup during the animation
+   */
+  private void startUiLoad(){
+    mUiLoadRunning = true;
+    mHandler.post(new Runnable(){
+      @Override
+      public void run(){
+        if(!mUiLoadRunning){
+          return;
+        }
+        
+        // busy wait instead of sleeping so that the thread really is unavailable
+        long end = SystemClock.uptimeMillis() + UI_LOAD_BUSY_MS;
+        while(SystemClock.uptimeMillis() < end){
+          // nothing, just burn time
+        }
+        
+        mHandler.postDelayed(this, UI_LOAD_IDLE_MS);
       }
     });
   }
@@ -0,0 +1,226 @@
+package com.yildizkabaran.twittersplash;
+
+import java.util.Locale;
+
+import android.os.SystemClock;
+
+/**
+ * A simple class for measuring the startup of the app, from the creation of the activity until the splash is removed. The times
+ * are taken from a clock that can be replaced, so that the measurements are repeatable when the app runs on a simulated runtime
+ * with a deterministic clock. Thresholds can be set for each measurement to detect regressions. All methods are synchronized
+ * since the first splash frame may be drawn on a render thread, so the clock may be called from that thread too.
+ * @author yildizkabaran
+ *
+ */
+public class StartupMetrics {
+
+  /**
+   * A simple interface for the source of time, in milliseconds
+   * @author yildizkabaran
+   *
+   */
+  public static interface IClock {
+    public long now();
+  }
+
+  /**
+   * A simple interface for getting the measurements once the startup is over
+   * @author yildizkabaran
+   *
+   */
+  public static interface IStartupListener {
+    /**
+     * Called on the UI thread once the splash is removed
+     * @param metrics the measurements
+     * @param failures the result of metrics.checkThresholds(), null if no threshold was exceeded
+     */
+    public void onStartupMeasured(StartupMetrics metrics, String failures);
+  }
+
+  /**
+   * The default clock, uses the uptime of the system just like the animations do
+   */
+  public static final IClock UPTIME_CLOCK = new IClock(){
+    @Override
+    public long now(){
+      return SystemClock.uptimeMillis();
+    }
+  };
+
+  public static final long NO_THRESHOLD = -1;
+
+  private final IClock mClock;
+
+  // the time of each milestone, -1 until reached
+  private long mCreateTime = -1;
+  private long mFirstSplashFrameTime = -1;
+  private long mDataLoadedTime = -1;
+  private long mContentAttachedTime = -1;
+  private long mSplashRemovedTime = -1;
+  private long mPeakHeap = 0;
+
+  private long mMaxTimeToFirstSplashFrame = NO_THRESHOLD;
+  private long mMaxTimeToContent = NO_THRESHOLD;
+  private long mMaxPeakHeap = NO_THRESHOLD;
+
+  /**
+   * Default constructor, uses the system uptime
+   */
+  public StartupMetrics(){
+    this(UPTIME_CLOCK);
+  }
+
+  /**
+   * Clock constructor
+   * @param clock
+   */
+  public StartupMetrics(IClock clock){
+    if(clock == null){
+      throw new IllegalArgumentException("clock cannot be null");
+    }
+
+    mClock = clock;
+  }
+
+  /**
+   * Set the maximum allowed time in ms from the activity creation to the first frame with the splash in it
+   * @param maxTime or NO_THRESHOLD
+   */
+  public synchronized void setMaxTimeToFirstSplashFrame(long maxTime){
+    mMaxTimeToFirstSplashFrame = maxTime;
+  }
+
+  /**
+   * Set the maximum allowed time in ms from the end of data loading until the splash is removed and the content is visible. The
+   * loading time itself is not included since it does not depend on the app startup.
+   * @param maxTime or NO_THRESHOLD
+   */
+  public synchronized void setMaxTimeToContent(long maxTime){
+    mMaxTimeToContent = maxTime;
+  }
+
+  /**
+   * Set the maximum allowed heap usage in bytes at any of the sampled points
+   * @param maxHeap or NO_THRESHOLD
+   */
+  public synchronized void setMaxPeakHeap(long maxHeap){
+    mMaxPeakHeap = maxHeap;
+  }
+
+  public synchronized void markCreate(){
+    mCreateTime = mClock.now();
+    sampleHeap();
+  }
+
+  public synchronized void markFirstSplashFrame(){
+    // only the first frame counts
+    if(mFirstSplashFrameTime < 0){
+      mFirstSplashFrameTime = mClock.now();
+    }
+    sampleHeap();
+  }
+
+  public synchronized void markDataLoaded(){
+    mDataLoadedTime = mClock.now();
+    sampleHeap();
+  }
+
+  public synchronized void markContentAttached(){
+    mContentAttachedTime = mClock.now();
+    sampleHeap();
+  }
+
+  public synchronized void markSplashRemoved(){
+    mSplashRemovedTime = mClock.now();
+    sampleHeap();
+  }
+
+  /**
+   * Sample the current heap usage and keep it if it is the highest so far. Call this at points where the heap is expected to be large.
+   */
+  public synchronized void sampleHeap(){
+    Runtime runtime = Runtime.getRuntime();
+    long used = runtime.totalMemory() - runtime.freeMemory();
+    if(used > mPeakHeap){
+      mPeakHeap = used;
+    }
+  }
+
+  /**
+   * Check if all milestones have been reached
+   */
+  public synchronized boolean isComplete(){
+    return mCreateTime >= 0 && mFirstSplashFrameTime >= 0 && mDataLoadedTime >= 0 && mContentAttachedTime >= 0 && mSplashRemovedTime >= 0;
+  }
+
+  /**
+   * Get the time in ms from the activity creation to the first frame with the splash in it, or -1 if not reached yet
+   */
+  public synchronized long getTimeToFirstSplashFrame(){
+    return getInterval(mCreateTime, mFirstSplashFrameTime);
+  }
+
+  /**
+   * Get the time in ms from the end of data loading until the content view is attached, or -1 if not reached yet
+   */
+  public synchronized long getTimeToContentAttached(){
+    return getInterval(mDataLoadedTime, mContentAttachedTime);
+  }
+
+  /**
+   * Get the time in ms from the end of data loading until the splash is removed, or -1 if not reached yet
+   */
+  public synchronized long getTimeToContent(){
+    return getInterval(mDataLoadedTime, mSplashRemovedTime);
+  }
+
+  /**
+   * Get the highest sampled heap usage in bytes
+   */
+  public synchronized long getPeakHeap(){
+    return mPeakHeap;
+  }
+
+  private static long getInterval(long start, long end){
+    if(start < 0 || end < 0){
+      return -1;
+    }
+    return end - start;
+  }
+
+  /**
+   * Get a one line report of all measurements, useful for logging
+   */
+  public synchronized String getReport(){
+    return String.format(Locale.US, "first splash frame %dms, content attached %dms, content visible %dms, peak heap %dKB",
+        getTimeToFirstSplashFrame(), getTimeToContentAttached(), getTimeToContent(), mPeakHeap / 1024);
+  }
+
+  /**
+   * Compare the measurements against the thresholds
+   * @return a message listing every threshold that was exceeded, or null if all measurements are within their thresholds
+   */
+  public synchronized String checkThresholds(){
+    StringBuilder failures = new StringBuilder();
+    appendFailure(failures, "first splash frame", getTimeToFirstSplashFrame(), mMaxTimeToFirstSplashFrame, "ms");
+    appendFailure(failures, "content visible", getTimeToContent(), mMaxTimeToContent, "ms");
+    appendFailure(failures, "peak heap", mPeakHeap, mMaxPeakHeap, "B");
+    return failures.length() > 0 ? failures.toString() : null;
+  }
+
+  private static void appendFailure(StringBuilder failures, String name, long value, long threshold, String unit){
+    if(threshold == NO_THRESHOLD){
+      return;
+    }
+
+    // a milestone that was never reached is a failure too, otherwise a broken startup would pass
+    if(value < 0 || value > threshold){
+      if(failures.length() > 0){
+        failures.append(", ");
+      }
+      failures.append(name).append(' ');
+      failures.append(value < 0 ? "not reached" : value + unit);
+      failures.append(" (max ").append(threshold).append(unit).append(')');
+    }
+  }
+}
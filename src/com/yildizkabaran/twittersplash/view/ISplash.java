@@ -0,0 +1,22 @@
+package com.yildizkabaran.twittersplash.view;
+
+import android.graphics.drawable.Drawable;
+
+import com.yildizkabaran.twittersplash.view.SplashView.ISplashListener;
+
+/**
+ * A simple interface shared by the splash view variants so that they can be used interchangeably. See SplashView for what
+ * each of the setters does.
+ * @author yildizkabaran
+ *
+ */
+public interface ISplash {
+  public void setHoleFillColor(int bgColor);
+  public void setIconColor(int iconColor);
+  public void setDuration(long duration);
+  public void setUseIconCache(boolean useIconCache);
+  public void setIconResource(int resId);
+  public void setIconDrawable(Drawable icon);
+  public void setRemoveFromParentOnEnd(boolean shouldRemove);
+  public void splashAndDisappear(ISplashListener listener);
+}
@@ -2,6 +2,7 @@ package com.yildizkabaran.twittersplash.view;
 
 import android.content.Context;
 import android.graphics.Color;
+import android.view.View;
 import android.widget.FrameLayout;
 
 import com.yildizkabaran.twittersplash.R;
@@ -14,34 +15,49 @@ import com.yildizkabaran.twittersplash.R;
 public class MainView extends FrameLayout {
   
   public MainView(Context context){
+    this(context, false);
+  }
+  
+  /**
+   * Render thread constructor
+   * @param context
+   * @param useRenderThread true to use a SplashSurfaceView that draws on its own thread instead of a SplashView
+   */
+  public MainView(Context context, boolean useRenderThread){
     super(context);
-    initialize();
+    initialize(useRenderThread);
   }
   
-  private SplashView mSplashView;
+  private ISplash mSplashView;
   
-  private void initialize(){
+  private void initialize(boolean useRenderThread){
     Context context = getContext();
     
+    // both variants draw the same frames, the surface variant just draws them on its own thread
+    if(useRenderThread){
+      mSplashView = new SplashSurfaceView(context);
+    } else {
+      mSplashView = new SplashView(context);
+    }
+    
     // initialize the view with all default values
     // you don't need to set these default values, they are already set, except for setIconResource
     // this is only for demonstration purposes
-    mSplashView = new SplashView(context);
     mSplashView.setDuration(500); // the animation will last 0.5 seconds
-    mSplashView.setBackgroundColor(Color.WHITE); // transparent hole will look white before the animation
+    mSplashView.setHoleFillColor(Color.WHITE); // transparent hole will look white before the animation
     mSplashView.setIconColor(Color.rgb(23, 169, 229)); // this is the Twitter blue color
     mSplashView.setIconResource(R.drawable.ic_twitter); // a Twitter icon with transparent hole in it
     mSplashView.setRemoveFromParentOnEnd(true); // remove the SplashView from MainView once animation is completed
     
     // add the view
-    addView(mSplashView);
+    addView((View) mSplashView);
   }
   
   public void unsetSplashView(){
     mSplashView = null;
   }
   
-  public SplashView getSplashView(){
+  public ISplash getSplashView(){
     return mSplashView;
   }
 }
@@ -0,0 +1,272 @@
+package com.yildizkabaran.twittersplash.view;
+
+import android.animation.ValueAnimator;
+import android.animation.ValueAnimator.AnimatorUpdateListener;
+import android.view.animation.AnimationUtils;
+import android.view.animation.Interpolator;
+
+import com.yildizkabaran.twittersplash.view.SplashView.ISplashListener;
+
+/**
+ * Drives the splash reveal animation of any number of SplashViews from a single per-frame callback. This is useful when the
+ * reveal effect is used on many views at once, e.g. list items or tiles, since splashAndDisappear creates an animator, an
+ * interpolator and listeners for every view. The state of each running reveal is kept in primitive arrays which only grow
+ * when more reveals are running than ever before, so starting a reveal does not allocate any objects.
+ *
+ * All methods must be called from the UI thread. The listener callbacks are called from the same thread, in the same order as
+ * with splashAndDisappear.
+ * @author yildizkabaran
+ *
+ */
+public class RevealEngine {
+
+  public static final int DEFAULT_CAPACITY = 16;
+
+  // the pulse animator never ends by itself, it is only used for getting a callback on every frame
+  private static final long PULSE_DURATION = 1000;
+
+  private final ValueAnimator mPulse;
+  private boolean mPulseRunning = false; // tracked here since Animator.isStarted() needs API 14
+  private boolean mPulseStarting = false; // true while inside mPulse.start()
+  private final Interpolator mInterpolator = SplashView.createInterpolator(); // shared by all reveals, it has no state
+
+  // the state of each reveal, only the first mCount items are in use
+  private SplashView[] mViews;
+  private ISplashListener[] mListeners;
+  private long[] mStartTimes; // -1 until the first frame of the reveal
+  private long[] mDurations; // read from the view on the first frame of the reveal
+  private float[] mMaxScales; // read from the view on the first frame of the reveal
+  private int mCount = 0;
+
+  /**
+   * Default constructor, makes room for DEFAULT_CAPACITY reveals before growing
+   */
+  public RevealEngine(){
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Capacity constructor
+   * @param initialCapacity the number of reveals that can run at once before the arrays need to grow
+   */
+  public RevealEngine(int initialCapacity){
+    if(initialCapacity < 1){
+      throw new IllegalArgumentException("initialCapacity cannot be less than 1");
+    }
+
+    mViews = new SplashView[initialCapacity];
+    mListeners = new ISplashListener[initialCapacity];
+    mStartTimes = new long[initialCapacity];
+    mDurations = new long[initialCapacity];
+    mMaxScales = new float[initialCapacity];
+
+    mPulse = ValueAnimator.ofFloat(0, 1);
+    mPulse.setDuration(PULSE_DURATION);
+    mPulse.setRepeatCount(ValueAnimator.INFINITE);
+    mPulse.addUpdateListener(new AnimatorUpdateListener(){
+      @Override
+      public void onAnimationUpdate(ValueAnimator animation){
+        // start() calls the update listeners once before it returns, that is not a frame so the reveals must not start on it
+        if(mPulseStarting){
+          return;
+        }
+        onFrame(AnimationUtils.currentAnimationTimeMillis());
+      }
+    });
+  }
+
+  /**
+   * Start the reveal animation of the given view. This is the same animation as SplashView.splashAndDisappear(ISplashListener),
+   * and the view's duration, max scale, and remove from parent flag are used the same way. The reveal starts on the next frame,
+   * and the duration and max scale are read from the view at that point, so the view does not need to be laid out yet. If the
+   * view is already being revealed by this engine its reveal is restarted, also when called from one of its listener callbacks.
+   * @param view
+   * @param listener can be null
+   */
+  public void start(SplashView view, ISplashListener listener){
+    if(view == null){
+      throw new IllegalArgumentException("view cannot be null");
+    }
+
+    int index = indexOf(view);
+    if(index < 0){
+      ensureCapacity(mCount + 1);
+      index = mCount++;
+    }
+
+    mViews[index] = view;
+    mListeners[index] = listener;
+    mStartTimes[index] = -1;
+
+    if(!mPulseRunning){
+      mPulseRunning = true;
+      mPulseStarting = true;
+      mPulse.start();
+      mPulseStarting = false;
+    }
+  }
+
+  /**
+   * Stop the reveal of the given view without finishing it. The view keeps its current scale and the listener is not notified.
+   * @param view
+   * @return true if the view was being revealed
+   */
+  public boolean cancel(SplashView view){
+    int index = indexOf(view);
+    if(index < 0){
+      return false;
+    }
+
+    removeAt(index);
+    stopPulseIfIdle();
+    return true;
+  }
+
+  /**
+   * Stop all reveals without finishing them, see cancel(SplashView)
+   */
+  public void cancelAll(){
+    while(mCount > 0){
+      removeAt(mCount - 1);
+    }
+    stopPulseIfIdle();
+  }
+
+  /**
+   * Get the number of reveals currently running
+   */
+  public int getActiveCount(){
+    return mCount;
+  }
+
+  /**
+   * Called once per frame, advances every running reveal. A finished reveal is removed before its view is notified so that
+   * the listener can safely start a new reveal.
+   */
+  private void onFrame(long now){
+    int i = 0;
+    while(i < mCount){
+      SplashView view = mViews[i];
+      ISplashListener listener = mListeners[i];
+
+      // the first frame of a reveal marks its start, just like the posted animator start in splashAndDisappear
+      // the view has most likely been laid out by now, so this is the time to read its duration and max scale
+      if(mStartTimes[i] < 0){
+        mStartTimes[i] = now;
+        mDurations[i] = view.getDuration();
+        mMaxScales[i] = view.getMaxScale();
+        if(listener != null){
+          listener.onStart();
+        }
+
+        // the listener may have cancelled this reveal, in which case another reveal now sits at this index
+        if(i >= mCount || mViews[i] != view){
+          continue;
+        }
+        // or it may have restarted this reveal, in which case it starts over on the next frame
+        if(mStartTimes[i] < 0){
+          ++i;
+          continue;
+        }
+      }
+
+      long duration = mDurations[i];
+      float fraction = duration > 0 ? (float) (now - mStartTimes[i]) / duration : 1;
+      boolean ended = fraction >= 1;
+      if(ended){
+        fraction = 1;
+      }
+
+      view.setCurrentScale(SplashView.getScaleAt(mInterpolator, fraction, mMaxScales[i]));
+      if(listener != null){
+        listener.onUpdate(fraction);
+      }
+
+      // the listener may have cancelled this reveal, in which case another reveal now sits at this index
+      if(i >= mCount || mViews[i] != view){
+        continue;
+      }
+      // or it may have restarted this reveal, in which case it must not end with the old listener
+      if(mStartTimes[i] < 0){
+        ++i;
+        continue;
+      }
+
+      if(ended){
+        // removing swaps the last reveal into this index, so do not advance i
+        removeAt(i);
+        view.onSplashEnd(listener);
+      } else {
+        ++i;
+      }
+    }
+
+    stopPulseIfIdle();
+  }
+
+  private int indexOf(SplashView view){
+    for(int i = 0; i < mCount; ++i){
+      if(mViews[i] == view){
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Remove the reveal at the given index by moving the last reveal into its place
+   */
+  private void removeAt(int index){
+    int last = mCount - 1;
+    if(index != last){
+      mViews[index] = mViews[last];
+      mListeners[index] = mListeners[last];
+      mStartTimes[index] = mStartTimes[last];
+      mDurations[index] = mDurations[last];
+      mMaxScales[index] = mMaxScales[last];
+    }
+
+    // clear the references so that finished views can be garbage collected
+    mViews[last] = null;
+    mListeners[last] = null;
+    mCount = last;
+  }
+
+  /**
+   * Grow the arrays by doubling them if they cannot hold the given number of reveals
+   */
+  private void ensureCapacity(int capacity){
+    if(capacity <= mViews.length){
+      return;
+    }
+
+    int newCapacity = Math.max(capacity, mViews.length * 2);
+
+    SplashView[] views = new SplashView[newCapacity];
+    System.arraycopy(mViews, 0, views, 0, mCount);
+    mViews = views;
+
+    ISplashListener[] listeners = new ISplashListener[newCapacity];
+    System.arraycopy(mListeners, 0, listeners, 0, mCount);
+    mListeners = listeners;
+
+    long[] startTimes = new long[newCapacity];
+    System.arraycopy(mStartTimes, 0, startTimes, 0, mCount);
+    mStartTimes = startTimes;
+
+    long[] durations = new long[newCapacity];
+    System.arraycopy(mDurations, 0, durations, 0, mCount);
+    mDurations = durations;
+
+    float[] maxScales = new float[newCapacity];
+    System.arraycopy(mMaxScales, 0, maxScales, 0, mCount);
+    mMaxScales = maxScales;
+  }
+
+  private void stopPulseIfIdle(){
+    if(mCount == 0 && mPulseRunning){
+      mPulseRunning = false;
+      mPulse.cancel();
+    }
+  }
+}
@@ -0,0 +1,191 @@
+package com.yildizkabaran.twittersplash.view;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.util.AttributeSet;
+
+import com.yildizkabaran.twittersplash.R;
+
+/**
+ * Holds the configuration shared by SplashView and SplashSurfaceView, and parses it from XML attributes, so that both variants
+ * are set up exactly the same way. See the setters of SplashView for what each value does.
+ * @author yildizkabaran
+ *
+ */
+class SplashConfig {
+
+  private static final int PAINT_STROKE_WIDTH = 2; // give a stroke width to the paint so that the rectangles get a little overlap
+
+  private Drawable mIcon; // most important item, cannot be null
+  private int mHoleFillColor = SplashView.DEFAULT_HOLE_FILL_COLOR; // color to be shown in the transparent hole before the animation starts
+  private int mIconColor = SplashView.DEFAULT_ICON_COLOR; // should be the same color of as the icon background
+  private long mDuration = SplashView.DEFAULT_DURATION; // total duration, in ms, of the animation
+  private boolean mRemoveFromParentOnEnd = SplashView.DEFAULT_REMOVE_FROM_PARENT_ON_END; // a flag for removing the view from its parent once the animation is over
+  private boolean mUseIconCache = SplashView.DEFAULT_USE_ICON_CACHE; // a flag for loading icon resources through the SplashIconCache
+  private int mIconWidth, mIconHeight;
+
+  /**
+   * Setup the configuration from the custom XML attributes
+   * @param context
+   * @param attrs
+   */
+  void setupAttributes(Context context, AttributeSet attrs){
+    TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.TwitterSplashView);
+
+    // the cache flag has to be known before the icon is loaded, so read it ahead of the other attributes
+    setUseIconCache(a.getBoolean(R.styleable.TwitterSplashView_useIconCache, SplashView.DEFAULT_USE_ICON_CACHE));
+
+    int numAttrs = a.getIndexCount();
+    for (int i = 0; i < numAttrs; ++i) {
+      int attr = a.getIndex(i);
+      switch (attr) {
+      case R.styleable.TwitterSplashView_icon:
+        // prefer the resource id so that the icon can go through the icon cache
+        int iconResId = a.getResourceId(i, 0);
+        if(iconResId != 0){
+          setIconResource(context, iconResId);
+        } else {
+          setIconDrawable(a.getDrawable(i));
+        }
+        break;
+      case R.styleable.TwitterSplashView_iconColor:
+        setIconColor(a.getColor(i, SplashView.DEFAULT_ICON_COLOR));
+        break;
+      case R.styleable.TwitterSplashView_holeFillColor:
+        setHoleFillColor(a.getColor(i, SplashView.DEFAULT_HOLE_FILL_COLOR));
+        break;
+      case R.styleable.TwitterSplashView_duration:
+        setDuration(a.getInt(i, SplashView.DEFAULT_DURATION));
+        break;
+      case R.styleable.TwitterSplashView_removeFromParentOnEnd:
+        setRemoveFromParentOnEnd(a.getBoolean(i, SplashView.DEFAULT_REMOVE_FROM_PARENT_ON_END));
+        break;
+      }
+    }
+    a.recycle();
+  }
+
+  /**
+   * Set fill style on the paint so that the rectangles get filled
+   */
+  static void setupPaint(Paint paint){
+    paint.setStyle(Paint.Style.FILL_AND_STROKE);
+    paint.setStrokeWidth(PAINT_STROKE_WIDTH);
+  }
+
+  void setHoleFillColor(int holeFillColor){
+    mHoleFillColor = holeFillColor;
+  }
+
+  void setIconColor(int iconColor){
+    mIconColor = iconColor;
+  }
+
+  void setDuration(long duration){
+    if(duration < 0){
+      throw new IllegalArgumentException("duration cannot be less than 0");
+    }
+
+    mDuration = duration;
+  }
+
+  void setUseIconCache(boolean useIconCache){
+    mUseIconCache = useIconCache;
+  }
+
+  void setRemoveFromParentOnEnd(boolean shouldRemove){
+    mRemoveFromParentOnEnd = shouldRemove;
+  }
+
+  void setIconResource(Context context, int resId){
+    setIconDrawable(loadIcon(context, resId, mUseIconCache));
+  }
+
+  /**
+   * Load the icon with the given resource id, through the SplashIconCache if requested. This does not touch the configuration
+   * so it can be called without holding any lock.
+   */
+  static Drawable loadIcon(Context context, int resId, boolean useIconCache){
+    Drawable icon;
+    if(useIconCache){
+      icon = SplashIconCache.loadIcon(context, resId);
+    } else {
+      icon = context.getResources().getDrawable(resId);
+    }
+
+    if(icon == null){
+      throw new IllegalArgumentException("no drawable found for the resId: " + resId);
+    }
+
+    return icon;
+  }
+
+  void setIconDrawable(Drawable icon){
+    mIcon = icon;
+    if(mIcon != null){
+      mIconWidth = mIcon.getIntrinsicWidth();
+      mIconHeight = mIcon.getIntrinsicHeight();
+      // set the bounds of the drawable to its own dimensions
+      // canvas scaling will be used to change the bounds of the icon
+      Rect iconBounds = new Rect();
+      iconBounds.left = 0;
+      iconBounds.top = 0;
+      iconBounds.right = mIconWidth;
+      iconBounds.bottom = mIconHeight;
+      mIcon.setBounds(iconBounds);
+    } else {
+      mIconWidth = 0;
+      mIconHeight = 0;
+    }
+  }
+
+  /**
+   * A helper method for determining for large the icon should be enlarged before the animation ends in a view of the given size.
+   * There is a chance that the entire view will not become transparent by the end of the animation.
+   */
+  float getMaxScale(int width, int height){
+    if(mIconWidth < 1 || mIconHeight < 1){
+      return 1;
+    }
+
+    float maxScale = 2 * Math.max((float) width/mIconWidth, (float) height/mIconHeight);
+
+    // just to make sure the animation does not actually work backwards
+    return Math.max(maxScale, 1);
+  }
+
+  Drawable getIcon(){
+    return mIcon;
+  }
+
+  int getIconWidth(){
+    return mIconWidth;
+  }
+
+  int getIconHeight(){
+    return mIconHeight;
+  }
+
+  int getHoleFillColor(){
+    return mHoleFillColor;
+  }
+
+  int getIconColor(){
+    return mIconColor;
+  }
+
+  long getDuration(){
+    return mDuration;
+  }
+
+  boolean shouldUseIconCache(){
+    return mUseIconCache;
+  }
+
+  boolean shouldRemoveFromParentOnEnd(){
+    return mRemoveFromParentOnEnd;
+  }
+}
@@ -0,0 +1,337 @@
+package com.yildizkabaran.twittersplash.view;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.util.Log;
+import android.util.TypedValue;
+
+import com.yildizkabaran.twittersplash.BuildConfig;
+
+/**
+ * A small helper class that keeps the decoded pixels of a splash icon in a raw file inside the app cache. On the first run
+ * the icon is decoded like any other resource and its pixels are written to the cache file in the background. On later
+ * cold starts the file is memory-mapped and copied straight into a bitmap, skipping the PNG decoding step entirely.
+ * @author yildizkabaran
+ *
+ */
+public class SplashIconCache {
+
+  private static final String TAG = "SplashIconCache";
+
+  private static final int MAGIC = 0x54535043; // "TSPC", used for making sure we are reading one of our own files
+  private static final int FORMAT_VERSION = 2; // increase this whenever the file layout changes so that old files are ignored
+  // magic, version, resId, density, apk stamp (long), path length, width, height, byte count, the path bytes come after the path length
+  private static final int FIXED_HEADER_SIZE = 40;
+  private static final int BYTES_PER_PIXEL = 4; // files are always written in ARGB_8888
+  private static final String CHARSET = "UTF-8";
+
+  // the cache files currently being written, so that many views with the same icon only write the file once
+  private static final Set<String> sPendingWrites = new HashSet<String>();
+
+  private SplashIconCache(){
+    // no instances, only static helpers
+  }
+
+  /**
+   * Load the icon with the given resource id. If a valid cache file exists it will be mapped into a bitmap, otherwise the resource
+   * will be decoded normally and a cache file will be written for the next cold start. Each resolved resource file has its own cache
+   * file, so other resource qualifiers (night mode, orientation, layout direction, etc.) never get the wrong pixels. The file is
+   * invalidated when the app is updated, when the screen density changes, or when the decoded size does not match the file.
+   * @param context
+   * @param resId
+   * @return the icon drawable, or null if no drawable is found for the resId
+   */
+  public static Drawable loadIcon(Context context, int resId){
+    Resources res = context.getResources();
+    int density = res.getDisplayMetrics().densityDpi;
+    String path = getResourcePath(res, resId);
+    if(path == null){
+      // not backed by a file (e.g. a color), nothing to gain from caching
+      return res.getDrawable(resId);
+    }
+
+    long apkStamp = getApkStamp(context);
+    File file = getCacheFile(context, resId, density, path);
+
+    // try the fast path first
+    Bitmap cached = readBitmap(file, resId, density, apkStamp, path);
+    if(cached != null){
+      cached.setDensity(density);
+      return new BitmapDrawable(res, cached);
+    }
+
+    // the slow path, decode the resource like we would have done without the cache
+    Drawable icon = res.getDrawable(resId);
+    if(icon == null){
+      return null;
+    }
+
+    // pre-scale the icon to its intrinsic size so that the cached pixels can be used as they are
+    Bitmap bitmap = rasterize(icon);
+    if(bitmap == null){
+      return icon;
+    }
+
+    writeBitmapAsync(file, bitmap, resId, density, apkStamp, path);
+
+    // a bitmap taken from the drawable itself is shared with every other drawable of this resource, so it must not be changed
+    if(icon instanceof BitmapDrawable && ((BitmapDrawable) icon).getBitmap() == bitmap){
+      return icon;
+    }
+
+    bitmap.setDensity(density);
+    return new BitmapDrawable(res, bitmap);
+  }
+
+  /**
+   * Delete all cached icon files. Useful if the icons are changed at runtime in some way that the cache cannot detect.
+   * @param context
+   */
+  public static void clear(Context context){
+    File[] files = context.getCacheDir().listFiles();
+    if(files == null){
+      return;
+    }
+
+    for(File file : files){
+      if(file.getName().startsWith("splash_icon_")){
+        file.delete();
+      }
+    }
+  }
+
+  /**
+   * A helper method for building the cache file name. Every resource, density, and resolved resource file has its own file.
+   */
+  private static File getCacheFile(Context context, int resId, int density, String path){
+    return new File(context.getCacheDir(), "splash_icon_" + Integer.toHexString(resId) + "_" + density + "_"
+        + Integer.toHexString(path.hashCode()) + ".raw");
+  }
+
+  /**
+   * A helper method for getting the path of the file the resource resolves to with the current configuration, e.g.
+   * res/drawable-night-xhdpi-v4/ic_twitter.png. This does not decode anything. Returns null if the resource is not a file.
+   */
+  private static String getResourcePath(Resources res, int resId){
+    TypedValue value = new TypedValue();
+    res.getValue(resId, value, true);
+    return value.string != null ? value.string.toString() : null;
+  }
+
+  /**
+   * A helper method for getting a value that changes whenever the app is installed or updated. The modification time of the apk
+   * is cheap to read and changes every time the resources can change.
+   */
+  private static long getApkStamp(Context context){
+    String sourceDir = context.getApplicationInfo().sourceDir;
+    if(sourceDir == null){
+      return 0;
+    }
+    return new File(sourceDir).lastModified();
+  }
+
+  /**
+   * Draw the given drawable into a new ARGB_8888 bitmap at its intrinsic size. If the drawable already holds such a bitmap that
+   * bitmap is returned as it is, and it must only be read. Returns null if the drawable has no intrinsic size.
+   */
+  private static Bitmap rasterize(Drawable icon){
+    int width = icon.getIntrinsicWidth();
+    int height = icon.getIntrinsicHeight();
+    if(width < 1 || height < 1){
+      return null;
+    }
+
+    // if the drawable is already a bitmap of the right size and config there is no need to draw it again
+    if(icon instanceof BitmapDrawable){
+      Bitmap bitmap = ((BitmapDrawable) icon).getBitmap();
+      if(bitmap != null && bitmap.getWidth() == width && bitmap.getHeight() == height && bitmap.getConfig() == Bitmap.Config.ARGB_8888){
+        return bitmap;
+      }
+    }
+
+    Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+    Canvas canvas = new Canvas(bitmap);
+    icon.setBounds(0, 0, width, height);
+    icon.draw(canvas);
+    return bitmap;
+  }
+
+  /**
+   * Map the cache file and copy its pixels into a new bitmap. Returns null if the file does not exist or if it is invalid for
+   * any reason, in which case the caller should fall back to decoding the resource.
+   */
+  private static Bitmap readBitmap(File file, int resId, int density, long apkStamp, String path){
+    if(!file.exists()){
+      return null;
+    }
+
+    RandomAccessFile raf = null;
+    try {
+      raf = new RandomAccessFile(file, "r");
+      FileChannel channel = raf.getChannel();
+      long fileSize = channel.size();
+      if(fileSize < FIXED_HEADER_SIZE){
+        return invalidate(file, "file too small");
+      }
+
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+      buffer.order(ByteOrder.nativeOrder());
+
+      // check the header against the values we expect, any mismatch means the file is stale
+      if(buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION){
+        return invalidate(file, "unknown format");
+      }
+      if(buffer.getInt() != resId || buffer.getInt() != density || buffer.getLong() != apkStamp){
+        return invalidate(file, "resource, density, or app version changed");
+      }
+
+      // make sure the pixels came from the same resource file, the file name only has a hash of the path
+      byte[] pathBytes = path.getBytes(CHARSET);
+      if(buffer.getInt() != pathBytes.length || fileSize < FIXED_HEADER_SIZE + pathBytes.length){
+        return invalidate(file, "resource file changed");
+      }
+      byte[] storedPathBytes = new byte[pathBytes.length];
+      buffer.get(storedPathBytes);
+      if(!Arrays.equals(pathBytes, storedPathBytes)){
+        return invalidate(file, "resource file changed");
+      }
+
+      int width = buffer.getInt();
+      int height = buffer.getInt();
+      int byteCount = buffer.getInt();
+      if(width < 1 || height < 1 || byteCount != width * height * BYTES_PER_PIXEL
+          || fileSize != FIXED_HEADER_SIZE + pathBytes.length + byteCount){
+        return invalidate(file, "size mismatch");
+      }
+
+      // the buffer position is now at the start of the pixels, copy them directly into the bitmap
+      Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+      bitmap.copyPixelsFromBuffer(buffer);
+      return bitmap;
+    } catch(IOException e){
+      return invalidate(file, e.getMessage());
+    } catch(RuntimeException e){
+      // copyPixelsFromBuffer and the buffer getters throw runtime exceptions on truncated files
+      return invalidate(file, e.getMessage());
+    } finally {
+      closeQuietly(raf);
+    }
+  }
+
+  /**
+   * Write the bitmap pixels into the cache file on a background thread so that the first cold start is not slowed down by disk IO.
+   * Only one write is started for each cache file, even if many views load the same icon before the first write is done.
+   */
+  private static void writeBitmapAsync(final File file, final Bitmap bitmap, final int resId, final int density, final long apkStamp,
+      final String path){
+    final String key = file.getPath();
+    synchronized(sPendingWrites){
+      if(!sPendingWrites.add(key)){
+        return;
+      }
+    }
+
+    new Thread(new Runnable(){
+      @Override
+      public void run(){
+        try {
+          writeBitmap(file, bitmap, resId, density, apkStamp, path);
+        } finally {
+          synchronized(sPendingWrites){
+            sPendingWrites.remove(key);
+          }
+        }
+      }
+    }, TAG).start();
+  }
+
+  /**
+   * Write the pixels to a temporary file of its own first and then rename it, so that a half written file is never read.
+   */
+  private static void writeBitmap(File file, Bitmap bitmap, int resId, int density, long apkStamp, String path){
+    int width = bitmap.getWidth();
+    int height = bitmap.getHeight();
+    int byteCount = width * height * BYTES_PER_PIXEL;
+
+    File tempFile = null;
+    RandomAccessFile raf = null;
+    try {
+      byte[] pathBytes = path.getBytes(CHARSET);
+
+      ByteBuffer buffer = ByteBuffer.allocate(FIXED_HEADER_SIZE + pathBytes.length + byteCount);
+      buffer.order(ByteOrder.nativeOrder());
+      buffer.putInt(MAGIC);
+      buffer.putInt(FORMAT_VERSION);
+      buffer.putInt(resId);
+      buffer.putInt(density);
+      buffer.putLong(apkStamp);
+      buffer.putInt(pathBytes.length);
+      buffer.put(pathBytes);
+      buffer.putInt(width);
+      buffer.putInt(height);
+      buffer.putInt(byteCount);
+      bitmap.copyPixelsToBuffer(buffer);
+      buffer.flip();
+
+      // every write gets its own temporary file so that concurrent writes never mix their pixels
+      tempFile = File.createTempFile("splash_icon_", ".tmp", file.getParentFile());
+      raf = new RandomAccessFile(tempFile, "rw");
+      FileChannel channel = raf.getChannel();
+      while(buffer.hasRemaining()){
+        channel.write(buffer);
+      }
+      channel.force(false);
+    } catch(IOException e){
+      if(BuildConfig.DEBUG){
+        Log.w(TAG, "could not write icon cache file: " + e.getMessage());
+      }
+      if(tempFile != null){
+        tempFile.delete();
+      }
+      return;
+    } finally {
+      closeQuietly(raf);
+    }
+
+    if(!tempFile.renameTo(file)){
+      tempFile.delete();
+    }
+  }
+
+  /**
+   * Delete an invalid cache file so that it gets re-written with fresh pixels. Always returns null for convenience.
+   */
+  private static Bitmap invalidate(File file, String reason){
+    if(BuildConfig.DEBUG){
+      Log.d(TAG, "icon cache file " + file.getName() + " ignored: " + reason);
+    }
+    file.delete();
+    return null;
+  }
+
+  private static void closeQuietly(RandomAccessFile raf){
+    if(raf == null){
+      return;
+    }
+    try {
+      raf.close();
+    } catch(IOException e){
+      // nothing to do here
+    }
+  }
+}
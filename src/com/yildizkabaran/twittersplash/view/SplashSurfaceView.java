@@ -0,0 +1,450 @@
+package com.yildizkabaran.twittersplash.view;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.PixelFormat;
+import android.graphics.PorterDuff;
+import android.graphics.drawable.Drawable;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.AttributeSet;
+import android.util.Log;
+import android.view.SurfaceHolder;
+import android.view.SurfaceView;
+import android.view.animation.Interpolator;
+
+import com.yildizkabaran.twittersplash.BuildConfig;
+import com.yildizkabaran.twittersplash.view.SplashView.ISplashListener;
+
+/**
+ * A variant of SplashView that draws on its own surface from a dedicated render thread. The frames are exactly the same as
+ * the ones drawn by SplashView, but since nothing is drawn on the UI thread the animation keeps its pace even while the UI
+ * thread is busy setting up the content. All setters must be called before splashAndDisappear is called.
+ * @author yildizkabaran
+ *
+ */
+public class SplashSurfaceView extends SurfaceView implements ISplash, SurfaceHolder.Callback {
+
+  private static final String TAG = "SplashSurfaceView";
+
+  /**
+   * Context constructor
+   * @param context
+   */
+  public SplashSurfaceView(Context context){
+    super(context);
+    initialize();
+  }
+
+  /**
+   * Context and attributes constructor
+   * @param context
+   * @param attrs
+   */
+  public SplashSurfaceView(Context context, AttributeSet attrs) {
+    super(context, attrs);
+    initialize();
+    setupAttributes(attrs);
+  }
+
+  /**
+   * Context, attributes, and style constructor
+   * @param context
+   * @param attrs
+   */
+  public SplashSurfaceView(Context context, AttributeSet attrs, int defStyleAttr) {
+    super(context, attrs, defStyleAttr);
+    initialize();
+    setupAttributes(attrs);
+  }
+
+  // the paint is only ever used by the render thread
+  private final Paint mPaint = new Paint();
+  private final Interpolator mInterpolator = SplashView.createInterpolator();
+
+  // used for notifying the listener and removing the view on the UI thread
+  private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+  // everything below is shared with the render thread and guarded by mLock
+  private final Object mLock = new Object();
+  private final SplashConfig mConfig = new SplashConfig(); // everything that is configured through the setters or XML
+  private RenderThread mRenderThread;
+  private boolean mSurfaceReady = false; // true between surfaceChanged and surfaceDestroyed
+  private boolean mDirty = false; // true if a still frame needs to be drawn
+  private boolean mAnimating = false; // true between splashAndDisappear and the last frame
+  private long mStartTime = -1; // uptime of the first animated frame, -1 if not yet started
+  private int mWidth, mHeight;
+  private float mMaxScale = 1;
+  private ISplashListener mListener;
+  private Runnable mOnFrameListener;
+
+  // the fraction of the animation is written by the render thread and read by the UI thread
+  private volatile float mCompletionFraction = 0;
+  private volatile boolean mUpdatePosted = false;
+
+  /**
+   * Setup custom attributes from XML, same attributes as SplashView
+   * @param attrs
+   */
+  private void setupAttributes(AttributeSet attrs) {
+    synchronized(mLock){
+      mConfig.setupAttributes(getContext(), attrs);
+      setMaxScale();
+      requestFrameLocked();
+    }
+  }
+
+  /**
+   * Initialize the surface so that the transparent hole shows the views behind it
+   */
+  private void initialize(){
+    SurfaceHolder holder = getHolder();
+    holder.addCallback(this);
+    // the surface needs an alpha channel for the transparent hole
+    holder.setFormat(PixelFormat.TRANSLUCENT);
+    // put the surface on top of the window so that it covers the content until the hole opens
+    setZOrderOnTop(true);
+
+    SplashConfig.setupPaint(mPaint);
+  }
+
+  /**
+   * Set the fill color of the view that will be seen through the transparent hole of the icon before the animation starts
+   */
+  @Override
+  public void setHoleFillColor(int bgColor){
+    synchronized(mLock){
+      mConfig.setHoleFillColor(bgColor);
+      requestFrameLocked();
+    }
+  }
+
+  /**
+   * Set the color of the icon. See SplashView.setIconColor(int) for more details.
+   * @param iconColor
+   */
+  @Override
+  public void setIconColor(int iconColor){
+    synchronized(mLock){
+      mConfig.setIconColor(iconColor);
+      requestFrameLocked();
+    }
+  }
+
+  /**
+   * Set the duration of the entire animation in milliseconds.
+   * @param duration
+   */
+  @Override
+  public void setDuration(long duration){
+    synchronized(mLock){
+      mConfig.setDuration(duration);
+    }
+  }
+
+  /**
+   * Set the flag to load icon resources through the SplashIconCache. See SplashView.setUseIconCache(boolean) for more details.
+   * @param useIconCache
+   */
+  @Override
+  public void setUseIconCache(boolean useIconCache){
+    synchronized(mLock){
+      mConfig.setUseIconCache(useIconCache);
+    }
+  }
+
+  /**
+   * Set the resource id of the Drawable to be used as the icon. See setIconDrawable(Drawable) for more details.
+   * @param resId
+   */
+  @Override
+  public void setIconResource(int resId){
+    boolean useIconCache;
+    synchronized(mLock){
+      useIconCache = mConfig.shouldUseIconCache();
+    }
+
+    // decoding the icon can take a while, so load it without holding the lock and only publish it under the lock
+    // otherwise the render thread would have to wait for the decoding before it can draw its next frame
+    setIconDrawable(SplashConfig.loadIcon(getContext(), resId, useIconCache));
+  }
+
+  /**
+   * Set the Drawable to be used as the icon. See SplashView.setIconDrawable(Drawable) for more details.
+   * @param icon
+   */
+  @Override
+  public void setIconDrawable(Drawable icon){
+    synchronized(mLock){
+      mConfig.setIconDrawable(icon);
+      setMaxScale();
+      requestFrameLocked();
+    }
+  }
+
+  /**
+   * Set the flag to remove or keep the view after the animation is over. See SplashView.setRemoveFromParentOnEnd(boolean) for more details.
+   * @param shouldRemove
+   */
+  @Override
+  public void setRemoveFromParentOnEnd(boolean shouldRemove){
+    synchronized(mLock){
+      mConfig.setRemoveFromParentOnEnd(shouldRemove);
+    }
+  }
+
+  /**
+   * Set a listener that will be run right after every frame is posted to the surface. See SplashView.setOnFrameListener(Runnable)
+   * for more details. The listener is run on the render thread.
+   * @param listener
+   */
+  public void setOnFrameListener(Runnable listener){
+    synchronized(mLock){
+      mOnFrameListener = listener;
+    }
+  }
+
+  /**
+   * Same as SplashView.setMaxScale(), must be called while holding mLock
+   */
+  private void setMaxScale(){
+    mMaxScale = mConfig.getMaxScale(mWidth, mHeight);
+  }
+
+  /**
+   * Starts the splash and disappear animation on the render thread. If a listener is provided it will be notified on the UI thread.
+   * The animation starts with the first frame drawn after the surface is ready.
+   * @param listener
+   */
+  @Override
+  public void splashAndDisappear(ISplashListener listener){
+    synchronized(mLock){
+      mListener = listener;
+      mStartTime = -1;
+      mCompletionFraction = 0;
+      mAnimating = true;
+      mLock.notifyAll();
+    }
+  }
+
+  private void requestFrameLocked(){
+    mDirty = true;
+    mLock.notifyAll();
+  }
+
+  @Override
+  public void surfaceCreated(SurfaceHolder holder){
+    synchronized(mLock){
+      mRenderThread = new RenderThread(holder);
+      mRenderThread.start();
+    }
+  }
+
+  @Override
+  public void surfaceChanged(SurfaceHolder holder, int format, int width, int height){
+    synchronized(mLock){
+      // cache the width and height for easy access and re-set the max scale because the size has changed
+      mWidth = width;
+      mHeight = height;
+      setMaxScale();
+
+      mSurfaceReady = true;
+      requestFrameLocked();
+    }
+  }
+
+  @Override
+  public void surfaceDestroyed(SurfaceHolder holder){
+    RenderThread thread;
+    synchronized(mLock){
+      mSurfaceReady = false;
+      thread = mRenderThread;
+      mRenderThread = null;
+      if(thread != null){
+        thread.mRunning = false;
+      }
+      mLock.notifyAll();
+    }
+
+    // the surface must not be used once this method returns, so wait for the render thread to finish its last frame
+    if(thread != null){
+      boolean interrupted = false;
+      while(thread.isAlive()){
+        try {
+          thread.join();
+        } catch(InterruptedException e){
+          interrupted = true;
+        }
+      }
+      if(interrupted){
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  // the listener callbacks are posted to the UI thread, create them once so that no objects are allocated per frame
+  private final Runnable mStartRunnable = new Runnable(){
+    @Override
+    public void run(){
+      // notify the listener of animation start (if listener is set)
+      ISplashListener listener = mListener;
+      if(listener != null){
+        listener.onStart();
+      }
+    }
+  };
+
+  private final Runnable mUpdateRunnable = new Runnable(){
+    @Override
+    public void run(){
+      mUpdatePosted = false;
+      // notify the listener if set, updates are coalesced if the UI thread is too busy to keep up with the frames
+      ISplashListener listener = mListener;
+      if(listener != null){
+        listener.onUpdate(mCompletionFraction);
+      }
+    }
+  };
+
+  private final Runnable mEndRunnable = new Runnable(){
+    @Override
+    public void run(){
+      // check if we need to remove the view on animation end
+      boolean shouldRemove;
+      synchronized(mLock){
+        shouldRemove = mConfig.shouldRemoveFromParentOnEnd();
+      }
+      if(shouldRemove){
+        SplashView.removeFromParent(SplashSurfaceView.this);
+      }
+
+      // notify the listener of animation end (if listener is set)
+      ISplashListener listener = mListener;
+      if(listener != null){
+        listener.onEnd();
+      }
+    }
+  };
+
+  /**
+   * The thread that draws all frames on the surface. It sleeps while there is nothing to draw, and draws as fast as the surface
+   * accepts new frames while the animation is running.
+   */
+  private class RenderThread extends Thread {
+
+    private final SurfaceHolder mHolder;
+    private volatile boolean mRunning = true;
+
+    public RenderThread(SurfaceHolder holder){
+      super(TAG);
+      mHolder = holder;
+    }
+
+    @Override
+    public void run(){
+      while(true){
+        Drawable icon;
+        int width, height, iconWidth, iconHeight, holeFillColor, iconColor;
+        long duration;
+        float maxScale;
+        boolean animating;
+        long startTime;
+        Runnable frameListener;
+
+        synchronized(mLock){
+          // wait until there is something to draw
+          while(mRunning && !(mSurfaceReady && (mDirty || mAnimating))){
+            try {
+              mLock.wait();
+            } catch(InterruptedException e){
+              return;
+            }
+          }
+
+          if(!mRunning){
+            return;
+          }
+
+          // mark the animation start on the first animated frame
+          if(mAnimating && mStartTime < 0){
+            mStartTime = SystemClock.uptimeMillis();
+            mHandler.post(mStartRunnable);
+          }
+
+          // copy the state so that the frame can be drawn without holding the lock
+          mDirty = false;
+          icon = mConfig.getIcon();
+          width = mWidth;
+          height = mHeight;
+          iconWidth = mConfig.getIconWidth();
+          iconHeight = mConfig.getIconHeight();
+          holeFillColor = mConfig.getHoleFillColor();
+          iconColor = mConfig.getIconColor();
+          duration = mConfig.getDuration();
+          maxScale = mMaxScale;
+          animating = mAnimating;
+          startTime = mStartTime;
+          frameListener = mOnFrameListener;
+        }
+
+        float scale = 1;
+        boolean ended = false;
+        if(animating){
+          // use the same timeline as the reversed ValueAnimator in SplashView
+          float fraction = duration > 0 ? (float) (SystemClock.uptimeMillis() - startTime) / duration : 1;
+          if(fraction >= 1){
+            fraction = 1;
+            ended = true;
+          }
+          scale = SplashView.getScaleAt(mInterpolator, fraction, maxScale);
+
+          mCompletionFraction = fraction;
+          if(!mUpdatePosted){
+            mUpdatePosted = true;
+            mHandler.post(mUpdateRunnable);
+          }
+        }
+
+        boolean drawn = drawFrame(icon, width, height, iconWidth, iconHeight, holeFillColor, iconColor, scale);
+
+        // notify the frame listener only after a frame really made it to the surface
+        if(drawn && frameListener != null){
+          frameListener.run();
+        }
+
+        if(ended){
+          synchronized(mLock){
+            mAnimating = false;
+          }
+          mHandler.post(mEndRunnable);
+        }
+      }
+    }
+
+    /**
+     * Draw a single frame on the surface, returns false if the surface could not be locked
+     */
+    private boolean drawFrame(Drawable icon, int width, int height, int iconWidth, int iconHeight, int holeFillColor, int iconColor,
+        float scale){
+      Canvas canvas = mHolder.lockCanvas();
+      if(canvas == null){
+        if(BuildConfig.DEBUG){
+          Log.w(TAG, "could not lock the surface canvas, frame skipped");
+        }
+        return false;
+      }
+
+      try {
+        // the surface keeps the previous frame, so clear it to get the transparent hole back
+        canvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
+        SplashView.drawSplash(canvas, mPaint, icon, width, height, iconWidth, iconHeight, scale, holeFillColor, iconColor);
+      } finally {
+        mHolder.unlockCanvasAndPost(canvas);
+      }
+      return true;
+    }
+  }
+}
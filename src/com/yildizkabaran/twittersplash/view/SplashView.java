@@ -6,21 +6,19 @@ import android.animation.ValueAnimator;
 import android.animation.ValueAnimator.AnimatorUpdateListener;
 import android.annotation.SuppressLint;
 import android.content.Context;
-import android.content.res.TypedArray;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
-import android.graphics.Rect;
 import android.graphics.drawable.Drawable;
 import android.util.AttributeSet;
 import android.util.Log;
 import android.view.View;
 import android.view.ViewManager;
 import android.view.ViewParent;
+import android.view.animation.Interpolator;
 import android.view.animation.OvershootInterpolator;
 
 import com.yildizkabaran.twittersplash.BuildConfig;
-import com.yildizkabaran.twittersplash.R;
 
 /**
  * A simple view class that will display an enlarging icon animation. For best results the provided icon should have a
@@ -28,7 +26,7 @@ import com.yildizkabaran.twittersplash.R;
  * @author yildizkabaran
  *
  */
-public class SplashView extends View {
+public class SplashView extends View implements ISplash {
 
   private static final String TAG = "SplashView";
   
@@ -78,55 +76,30 @@ public class SplashView extends View {
   public static final int DEFAULT_ICON_COLOR = Color.rgb(23, 169, 229);
   public static final int DEFAULT_DURATION = 500;
   public static final boolean DEFAULT_REMOVE_FROM_PARENT_ON_END = true;
+  public static final boolean DEFAULT_USE_ICON_CACHE = false;
   
-  private static final int PAINT_STROKE_WIDTH = 2; // give a stroke width to the paint so that the rectangles get a little overlap
-  
-  private Drawable mIcon; // most important item, cannot be null
-  private int mHoleFillColor = DEFAULT_HOLE_FILL_COLOR; // color to be shown in the transparent hole before the animation starts
-  private int mIconColor = DEFAULT_ICON_COLOR; // should be the same color of as the icon background
-  private long mDuration = DEFAULT_DURATION; // total duration, in ms, of the animation
-  private boolean mRemoveFromParentOnEnd = true; // a flag for removing the view from its parent once the animation is over
+  private final SplashConfig mConfig = new SplashConfig(); // everything that is configured through the setters or XML
   private float mCurrentScale = 1; // used for keeping track of how far along the animation we are
   
   // cache some dimension values to make the onDraw method simpler looking
   private int mWidth, mHeight;
-  private int mIconWidth, mIconHeight;
   private float mMaxScale = 1;
   
   // cache the paint object so that it doesn't need to be allocated in onDraw
   private Paint mPaint = new Paint();
   
+  // optional, called every time a frame is drawn
+  private Runnable mOnFrameListener;
+  
   /**
    * Setup custom attributes from XML
    * @param attrs
    */
   private void setupAttributes(AttributeSet attrs) {
-    Context context = getContext();
-
-    TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.TwitterSplashView);
-
-    int numAttrs = a.getIndexCount();
-    for (int i = 0; i < numAttrs; ++i) {
-      int attr = a.getIndex(i);
-      switch (attr) {
-      case R.styleable.TwitterSplashView_icon:
-        setIconDrawable(a.getDrawable(i));
-        break;
-      case R.styleable.TwitterSplashView_iconColor:
-        setIconColor(a.getColor(i, DEFAULT_ICON_COLOR));
-        break;
-      case R.styleable.TwitterSplashView_holeFillColor:
-        setHoleFillColor(a.getColor(i, DEFAULT_HOLE_FILL_COLOR));
-        break;
-      case R.styleable.TwitterSplashView_duration:
-        setDuration(a.getInt(i, DEFAULT_DURATION));
-        break;
-      case R.styleable.TwitterSplashView_removeFromParentOnEnd:
-        setRemoveFromParentOnEnd(a.getBoolean(i, DEFAULT_REMOVE_FROM_PARENT_ON_END));
-        break;
-      }
-    }
-    a.recycle();
+    mConfig.setupAttributes(getContext(), attrs);
+    
+    // the icon may have changed
+    setMaxScale();
   }
   
   /**
@@ -136,16 +109,15 @@ public class SplashView extends View {
     // make the background transparent so that the view does not automatically draw any unwanted colors
     setBackgroundColor(Color.TRANSPARENT);
     
-    // set fill style on the paint so that the rectangles get filled
-    mPaint.setStyle(Paint.Style.FILL_AND_STROKE);
-    mPaint.setStrokeWidth(PAINT_STROKE_WIDTH);
+    SplashConfig.setupPaint(mPaint);
   }
   
   /**
    * Set the fill color of the view that will be seen through the transparent hole of the icon before the animation starts
    */
+  @Override
   public void setHoleFillColor(int bgColor){
-    mHoleFillColor = bgColor;
+    mConfig.setHoleFillColor(bgColor);
   }
   
   /**
@@ -154,34 +126,41 @@ public class SplashView extends View {
    * look right, and this is one of them. Make sure this color is set correctly.
    * @param iconColor
    */
+  @Override
   public void setIconColor(int iconColor){
-    mIconColor = iconColor;
+    mConfig.setIconColor(iconColor);
   }
   
   /**
    * Set the duration of the entire animation in milliseconds.
    * @param duration
    */
+  @Override
   public void setDuration(long duration){
-    if(duration < 0){
-      throw new IllegalArgumentException("duration cannot be less than 0");
-    }
-    
-    mDuration = duration;
+    mConfig.setDuration(duration);
+  }
+  
+  /**
+   * Set the flag to load icon resources through the SplashIconCache. This is set to false by default. When enabled the decoded icon
+   * pixels are kept in a raw file in the app cache so that later cold starts do not need to decode the image again. The raw file is
+   * much larger than the image itself (4 bytes per pixel), so reading it can be slower than decoding a small PNG, only enable this
+   * if it is measured to be faster for your icon. This flag must be set before setIconResource(int) is called for it to have an effect.
+   * @param useIconCache
+   */
+  @Override
+  public void setUseIconCache(boolean useIconCache){
+    mConfig.setUseIconCache(useIconCache);
   }
   
   /**
    * Set the resource id of the Drawable to be used as the icon. See setIconDrawable(Drawable) for more details.
+   * If the icon cache is enabled the icon will be loaded from the cache file when possible, see setUseIconCache(boolean).
    * @param resId
    */
+  @Override
   public void setIconResource(int resId){
-    Drawable icon = getResources().getDrawable(resId);
-    
-    if(icon == null){
-      throw new IllegalArgumentException("no drawable found for the resId: " + resId);
-    }
-    
-    setIconDrawable(icon);
+    mConfig.setIconResource(getContext(), resId);
+    setMaxScale();
   }
   
   /**
@@ -189,24 +168,9 @@ public class SplashView extends View {
    * So far changing the size of the Drawable is not supported but can be added in the future
    * @param icon
    */
+  @Override
   public void setIconDrawable(Drawable icon){
-    mIcon = icon;
-    if(mIcon != null){
-      mIconWidth = mIcon.getIntrinsicWidth();
-      mIconHeight = mIcon.getIntrinsicHeight();
-      // set the bounds of the drawable to its own dimensions
-      // canvas scaling will be used to change the bounds of the icon
-      Rect iconBounds = new Rect();
-      iconBounds.left = 0;
-      iconBounds.top = 0;
-      iconBounds.right = mIconWidth;
-      iconBounds.bottom = mIconHeight;
-      mIcon.setBounds(iconBounds);
-    } else {
-      mIconWidth = 0;
-      mIconHeight = 0;
-    }
-    
+    mConfig.setIconDrawable(icon);
     setMaxScale();
   }
   
@@ -215,39 +179,39 @@ public class SplashView extends View {
    * (or ViewParent) for this to work. Otherwise, the view will not be removed and a warning log will be produced.
    * @param shouldRemove
    */
+  @Override
   public void setRemoveFromParentOnEnd(boolean shouldRemove){
-    mRemoveFromParentOnEnd = shouldRemove;
+    mConfig.setRemoveFromParentOnEnd(shouldRemove);
+  }
+  
+  /**
+   * Set a listener that will be run right after every frame the view draws, e.g. for measuring frame times. This is only meant
+   * for measurements and is not part of ISplash. Set to null (default) to stop.
+   * @param listener
+   */
+  public void setOnFrameListener(Runnable listener){
+    mOnFrameListener = listener;
   }
   
   /**
-   * A helper method for determining for large the icon should be enlarged before the animation ends. There is a chance that the entire view will not become
-   * transparent by the end of the animation.
+   * A helper method for determining for large the icon should be enlarged before the animation ends
    */
   private void setMaxScale(){
-    if(mIconWidth < 1 || mIconHeight < 1){
-      mMaxScale = 1;
-      return;
-    }
-    
-    mMaxScale = 2 * Math.max((float) mWidth/mIconWidth, (float) mHeight/mIconHeight);
-    
-    // just to make sure the animation does not actually work backwards
-    if(mMaxScale < 1){
-      mMaxScale = 1;
-    }
+    mMaxScale = mConfig.getMaxScale(mWidth, mHeight);
   }
   
   /**
    * Starts the splash and disappear animation. If a listener is provided it will notify the listener on animation events
    * @param listener
    */
+  @Override
   public void splashAndDisappear(final ISplashListener listener){
     // create an animator from scale 1 to max
     final ValueAnimator animator = ValueAnimator.ofFloat(1, mMaxScale);
     // set the duration
-    animator.setDuration(mDuration);
+    animator.setDuration(mConfig.getDuration());
     // set an overshoot interpolator with a low tension value so that the icon becomes a little smaller before it expands
-    animator.setInterpolator(new OvershootInterpolator(1F));
+    animator.setInterpolator(createInterpolator());
     
     // add an update listener so that we draw the view on each update
     animator.addUpdateListener(new AnimatorUpdateListener() {
@@ -262,10 +226,11 @@ public class SplashView extends View {
         // invalidate the view so that it gets redraw if it needs to be
         invalidate();
         
-        // notify the listener if set
-        // for some reason this animation can run beyond 100%
+        // notify the listener if set, the play time can run beyond the duration on the last frame so clamp the fraction
+        // to 1 the same way SplashSurfaceView and RevealEngine do
         if(listener != null){
-          listener.onUpdate((float) animation.getCurrentPlayTime() / mDuration);
+          long duration = mConfig.getDuration();
+          listener.onUpdate(duration > 0 ? Math.min((float) animation.getCurrentPlayTime() / duration, 1) : 1);
         }
       }
     });
@@ -282,26 +247,7 @@ public class SplashView extends View {
       
       @Override
       public void onAnimationEnd(Animator animation){
-        // check if we need to remove the view on animation end
-        if(mRemoveFromParentOnEnd){
-          // get the view parent
-          ViewParent parent = getParent();
-          // check if a parent exists and that it implements the ViewManager interface
-          if(parent != null && parent instanceof ViewManager){
-            ViewManager viewManager = (ViewManager) parent;
-            // remove the view from its parent
-            viewManager.removeView(SplashView.this);
-          } else if(BuildConfig.DEBUG) {
-            // even though we had to remove the view we either don't have a parent, or the parent does not implement the method
-            // necessary to remove the view, therefore create a warning log (but only do this if we are in DEBUG mode)
-            Log.w(TAG, "splash view not removed after animation ended because no ViewManager parent was found");
-          }
-        }
-        
-        // notify the listener of animation end (if listener is set)
-        if(listener != null){
-          listener.onEnd();
-        }
+        onSplashEnd(listener);
       }
     });
     
@@ -315,6 +261,43 @@ public class SplashView extends View {
     });
   }
   
+  /**
+   * Get the scale the icon will have at the end of the animation. Used by RevealEngine.
+   */
+  float getMaxScale(){
+    return mMaxScale;
+  }
+  
+  /**
+   * Get the duration of the animation in milliseconds. Used by RevealEngine.
+   */
+  long getDuration(){
+    return mConfig.getDuration();
+  }
+  
+  /**
+   * Set the current icon scale and redraw the view. Used by RevealEngine to drive the animation from outside.
+   */
+  void setCurrentScale(float scale){
+    mCurrentScale = scale;
+    invalidate();
+  }
+  
+  /**
+   * Finish the splash, removes the view if needed and notifies the listener. Used by both splashAndDisappear and RevealEngine.
+   */
+  void onSplashEnd(ISplashListener listener){
+    // check if we need to remove the view on animation end
+    if(mConfig.shouldRemoveFromParentOnEnd()){
+      removeFromParent(this);
+    }
+    
+    // notify the listener of animation end (if listener is set)
+    if(listener != null){
+      listener.onEnd();
+    }
+  }
+  
   @Override
   protected void onSizeChanged (int w, int h, int oldw, int oldh) {
     // do whatever the super wants to do
@@ -329,45 +312,100 @@ public class SplashView extends View {
   }
   
   @Override
-  protected void onDraw(Canvas canvas){    
+  protected void onDraw(Canvas canvas){
+    drawSplash(canvas, mPaint, mConfig.getIcon(), mWidth, mHeight, mConfig.getIconWidth(), mConfig.getIconHeight(), mCurrentScale,
+        mConfig.getHoleFillColor(), mConfig.getIconColor());
+    
+    // notify the frame listener if someone is measuring
+    if(mOnFrameListener != null){
+      mOnFrameListener.run();
+    }
+  }
+  
+  /**
+   * Draws a single frame of the splash animation on the given canvas. This is shared with SplashSurfaceView so that both
+   * variants produce exactly the same frames.
+   */
+  static void drawSplash(Canvas canvas, Paint paint, Drawable icon, int width, int height, int iconWidth, int iconHeight,
+      float scale, int holeFillColor, int iconColor){
     // calculate the scaled width and height
-    float iconWidth = mIconWidth * mCurrentScale;
-    float iconHeight = mIconHeight * mCurrentScale;
+    float scaledWidth = iconWidth * scale;
+    float scaledHeight = iconHeight * scale;
     
     // calculate all corners of the icon rectangle with the icon in the middle
-    float mIconLeft = (mWidth - iconWidth) / 2;
-    float mIconRight = mIconLeft + iconWidth;
-    float mIconTop = (mHeight - iconHeight) / 2;
-    float mIconBottom = mIconTop + iconHeight;
+    float iconLeft = (width - scaledWidth) / 2;
+    float iconRight = iconLeft + scaledWidth;
+    float iconTop = (height - scaledHeight) / 2;
+    float iconBottom = iconTop + scaledHeight;
     
     // if the scale is less than 2, then don't enable the transparent hole yet
-    if(mCurrentScale < 2){
+    if(scale < 2){
       // draw a bgColored rectangle right underneath the icon, make the rectangle a little bigger using the threshold value
-      mPaint.setColor(mHoleFillColor);
-      canvas.drawRect(mIconLeft, mIconTop, mIconRight, mIconBottom, mPaint);
+      paint.setColor(holeFillColor);
+      canvas.drawRect(iconLeft, iconTop, iconRight, iconBottom, paint);
     }
     
     // draw 4 rectangles around the icon to cover the entire screen, use threshold value to expand and overlap the rectangles
-    mPaint.setColor(mIconColor);
-    canvas.drawRect(0, 0, mIconLeft, mHeight, mPaint);
-    canvas.drawRect(mIconLeft, 0, mIconRight, mIconTop, mPaint);
-    canvas.drawRect(mIconLeft, mIconBottom, mIconRight, mHeight, mPaint);
-    canvas.drawRect(mIconRight, 0, mWidth, mHeight, mPaint);
+    paint.setColor(iconColor);
+    canvas.drawRect(0, 0, iconLeft, height, paint);
+    canvas.drawRect(iconLeft, 0, iconRight, iconTop, paint);
+    canvas.drawRect(iconLeft, iconBottom, iconRight, height, paint);
+    canvas.drawRect(iconRight, 0, width, height, paint);
     
-    if(mIcon != null){
+    if(icon != null){
       // save the current canvas state
       canvas.save();
       // translate the canvas to draw the icon
-      canvas.translate(mIconLeft, mIconTop);
+      canvas.translate(iconLeft, iconTop);
       // scale the canvas for the desired icon scale
-      canvas.scale(mCurrentScale, mCurrentScale);
+      canvas.scale(scale, scale);
       // draw the icon on the canvas
-      mIcon.draw(canvas);
+      icon.draw(canvas);
       // restore the canvas to its original state
       canvas.restore();
     } else if(BuildConfig.DEBUG){
-      // if the icon is not set then log a warning message if we are in debug mode, this message will be logged every time onDraw is called
+      // if the icon is not set then log a warning message if we are in debug mode, this message will be logged every time a frame is drawn
       Log.w(TAG, "icon is not set when the view needs to be drawn");
     }
   }
+  
+  /**
+   * Calculates the icon scale at the given fraction of the animation time. This gives the same values that splashAndDisappear
+   * gets from its reversed ValueAnimator, so it can be used to drive the animation without an animator.
+   * @param interpolator the interpolator used by the animation, see createInterpolator()
+   * @param playFraction fraction of the duration that has elapsed, from 0 to 1
+   * @param maxScale the scale at the end of the animation
+   */
+  static float getScaleAt(Interpolator interpolator, float playFraction, float maxScale){
+    // a reversed animator plays the interpolator backwards from the end value to the start value
+    float animatedValue = 1 + (maxScale - 1) * interpolator.getInterpolation(1 - playFraction);
+    // correct for the reversal the same way the animator update listener does
+    return 1 + maxScale - animatedValue;
+  }
+  
+  /**
+   * Creates the interpolator used by the splash animation. An overshoot interpolator with a low tension value makes the icon
+   * become a little smaller before it expands.
+   */
+  static Interpolator createInterpolator(){
+    return new OvershootInterpolator(1F);
+  }
+  
+  /**
+   * Removes the given view from its parent once the animation is over. The parent must be a ViewManager for this to work.
+   */
+  static void removeFromParent(View view){
+    // get the view parent
+    ViewParent parent = view.getParent();
+    // check if a parent exists and that it implements the ViewManager interface
+    if(parent != null && parent instanceof ViewManager){
+      ViewManager viewManager = (ViewManager) parent;
+      // remove the view from its parent
+      viewManager.removeView(view);
+    } else if(BuildConfig.DEBUG) {
+      // even though we had to remove the view we either don't have a parent, or the parent does not implement the method
+      // necessary to remove the view, therefore create a warning log (but only do this if we are in DEBUG mode)
+      Log.w(TAG, "splash view not removed after animation ended because no ViewManager parent was found");
+    }
+  }
 }
@@ -0,0 +1,34 @@
+package com.yildizkabaran.twittersplash.test;
+
+import android.util.Log;
+
+import com.yildizkabaran.twittersplash.FrameTimeRecorder;
+import com.yildizkabaran.twittersplash.MainActivity;
+
+/**
+ * Compares the splash frame times of SplashView and SplashSurfaceView while the UI thread is kept busy. The summaries are
+ * logged under the SplashFrameTimeTest tag, run the test from a debug build of the app since frames are only recorded there.
+ * @author yildizkabaran
+ *
+ */
+public class SplashFrameTimeTest extends SplashTestCase {
+
+  private static final String TAG = "SplashFrameTimeTest";
+
+  public void testUiThreadSplashUnderLoad() throws InterruptedException {
+    runUnderLoad(false);
+  }
+
+  public void testRenderThreadSplashUnderLoad() throws InterruptedException {
+    runUnderLoad(true);
+  }
+
+  private void runUnderLoad(boolean useRenderThread) throws InterruptedException {
+    MainActivity activity = runSplash(createIntent(false, useRenderThread).putExtra(MainActivity.EXTRA_SIMULATE_UI_LOAD, true));
+
+    FrameTimeRecorder recorder = activity.getFrameTimeRecorder();
+    assertNotNull("frame times are only recorded in debug builds", recorder);
+    Log.i(TAG, (useRenderThread ? "render thread" : "UI thread") + " splash frames under UI load: " + recorder.getSummary());
+    assertTrue("the splash was not animated", recorder.getFrameCount() > 1);
+  }
+}
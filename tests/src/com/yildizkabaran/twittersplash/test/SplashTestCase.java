@@ -0,0 +1,83 @@
+package com.yildizkabaran.twittersplash.test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import android.content.Intent;
+import android.test.ActivityInstrumentationTestCase2;
+
+import com.yildizkabaran.twittersplash.MainActivity;
+import com.yildizkabaran.twittersplash.StartupMetrics;
+
+/**
+ * A base class for the tests that launch MainActivity with a given set of options and wait until the splash is removed. The
+ * loading delay is fixed so that every run goes through the same steps with the same timing.
+ * @author yildizkabaran
+ *
+ */
+abstract class SplashTestCase extends ActivityInstrumentationTestCase2<MainActivity> {
+
+  protected static final long LOADING_DELAY_MS = 1000;
+  private static final long TIMEOUT_MS = 10000; // loading delay, the animation, and plenty of room for a slow device
+
+  private StartupMetrics mStartupMetrics;
+  private String mFailures;
+
+  SplashTestCase(){
+    super(MainActivity.class);
+  }
+
+  /**
+   * Create the launch intent for the given splash variant, with a fixed loading delay and the startup measured
+   */
+  protected Intent createIntent(boolean doXml, boolean useRenderThread){
+    Intent intent = new Intent();
+    intent.putExtra(MainActivity.EXTRA_DO_XML, doXml);
+    intent.putExtra(MainActivity.EXTRA_USE_RENDER_THREAD, useRenderThread);
+    intent.putExtra(MainActivity.EXTRA_LOADING_DELAY_MS, LOADING_DELAY_MS);
+    intent.putExtra(MainActivity.EXTRA_MEASURE_STARTUP, true);
+    return intent;
+  }
+
+  /**
+   * Launch the activity with the given intent and block until the splash is removed
+   * @return the launched activity
+   */
+  protected MainActivity runSplash(Intent intent) throws InterruptedException {
+    setActivityIntent(intent);
+    final MainActivity activity = getActivity();
+
+    final CountDownLatch latch = new CountDownLatch(1);
+    // the listener is called on the UI thread, so set it there as well
+    getInstrumentation().runOnMainSync(new Runnable(){
+      @Override
+      public void run(){
+        activity.setStartupListener(new StartupMetrics.IStartupListener(){
+          @Override
+          public void onStartupMeasured(StartupMetrics metrics, String failures){
+            mStartupMetrics = metrics;
+            mFailures = failures;
+            latch.countDown();
+          }
+        });
+      }
+    });
+
+    assertTrue("the splash was not removed within " + TIMEOUT_MS + "ms", latch.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+    return activity;
+  }
+
+  /**
+   * Get the startup measurements of the last run
+   */
+  protected StartupMetrics getStartupMetrics(){
+    return mStartupMetrics;
+  }
+
+  /**
+   * Get the thresholds exceeded in the last run, or null if none were exceeded
+   */
+  protected String getFailures(){
+    return mFailures;
+  }
+}
@@ -0,0 +1,49 @@
+package com.yildizkabaran.twittersplash.test;
+
+import android.content.Intent;
+import android.util.Log;
+
+import com.yildizkabaran.twittersplash.MainActivity;
+import com.yildizkabaran.twittersplash.StartupMetrics;
+
+/**
+ * Measures the startup of MainActivity with each way of setting up the splash and fails if any measurement exceeds its
+ * threshold. The loading delay is fixed so that the runs can be compared with each other. The reports are logged under the
+ * StartupBenchmarkTest tag.
+ * @author yildizkabaran
+ *
+ */
+public class StartupBenchmarkTest extends SplashTestCase {
+
+  private static final String TAG = "StartupBenchmarkTest";
+
+  // startup thresholds, adjust these to the device the benchmark runs on
+  private static final long MAX_TIME_TO_FIRST_SPLASH_FRAME_MS = 500;
+  private static final long MAX_TIME_TO_CONTENT_MS = 1000; // includes the 500ms splash animation
+  private static final long MAX_PEAK_HEAP_BYTES = 32 * 1024 * 1024;
+
+  public void testCodeStartup() throws InterruptedException {
+    runBenchmark(false, false);
+  }
+
+  public void testXmlStartup() throws InterruptedException {
+    runBenchmark(true, false);
+  }
+
+  public void testRenderThreadStartup() throws InterruptedException {
+    runBenchmark(false, true);
+  }
+
+  private void runBenchmark(boolean doXml, boolean useRenderThread) throws InterruptedException {
+    Intent intent = createIntent(doXml, useRenderThread);
+    intent.putExtra(MainActivity.EXTRA_MAX_TIME_TO_FIRST_SPLASH_FRAME_MS, MAX_TIME_TO_FIRST_SPLASH_FRAME_MS);
+    intent.putExtra(MainActivity.EXTRA_MAX_TIME_TO_CONTENT_MS, MAX_TIME_TO_CONTENT_MS);
+    intent.putExtra(MainActivity.EXTRA_MAX_PEAK_HEAP_BYTES, MAX_PEAK_HEAP_BYTES);
+    runSplash(intent);
+
+    StartupMetrics metrics = getStartupMetrics();
+    Log.i(TAG, (doXml ? "xml" : useRenderThread ? "render thread" : "code") + " startup: " + metrics.getReport());
+    assertTrue("not every startup milestone was reached: " + metrics.getReport(), metrics.isComplete());
+    assertNull("startup regressed: " + getFailures(), getFailures());
+  }
+}